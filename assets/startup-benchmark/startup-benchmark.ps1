@@ -0,0 +1,99 @@
+# Startup benchmark (PowerShell)
+# Reports the time from process launch to the first consumed (or produced) record for each service
+# and each startup mode:
+#   jar    - plain fat jar                      (mvn package)
+#   cds    - AOT + class-data-sharing archive   (mvn -Pcds package)
+#   native - GraalVM native image               (mvn -Pnative native:compile, requires a GraalVM JDK)
+# Modes whose artifact has not been built are skipped.
+#
+# Prerequisites: Kafka running locally (docker-compose-kafka.yml) and records flowing, i.e. the producers
+# (and the stream processor for the websocket service) are already running when a consumer is measured.
+#
+# Usage: .\startup-benchmark.ps1 [-Modules workshop-kafka-train-consumer-dashboard] [-Modes jar,cds,native] [-TimeoutSeconds 120]
+
+param(
+    [string[]]$Modules = @(
+        "workshop-kafka-train-producer", "workshop-kafka-train-avro-producer", "workshop-kafka-train-consumer-dashboard",
+        "workshop-kafka-train-avro-consumer", "workshop-kafka-train-streams-analysis", "workshop-kafka-train-websocket"),
+    [string[]]$Modes = @("jar", "cds", "native"),
+    [int]$TimeoutSeconds = 120
+)
+
+$Root = Resolve-Path (Join-Path $PSScriptRoot "..\..")
+
+# Log line printed by each service when it handles its first record
+$Markers = @{
+    "workshop-kafka-train-producer"           = "Sent position update"
+    "workshop-kafka-train-avro-producer"      = "Sent position for"
+    "workshop-kafka-train-consumer-dashboard" = "Received position for train"
+    "workshop-kafka-train-avro-consumer"      = "Received:"
+    "workshop-kafka-train-websocket"          = "Received speed update"
+    # The stream processor does not log records: measure until its partitions are assigned and it is processing
+    "workshop-kafka-train-streams-analysis"   = "State transition from REBALANCING to RUNNING"
+}
+
+# Returns @(executable, arguments) for a module in a mode, or $null if that mode has not been built
+function Get-LaunchCommand($module, $mode) {
+    $target = Join-Path $Root "$module\target"
+    switch ($mode) {
+        "jar" {
+            $jar = Get-ChildItem "$target\*.jar" -ErrorAction SilentlyContinue | Where-Object { $_.Name -notlike "*-plain.jar" } | Select-Object -First 1
+            if ($jar) { return @("java", "-jar `"$($jar.FullName)`"") }
+        }
+        "cds" {
+            if (Test-Path "$target\cds\application.jsa") {
+                return @("java", "-XX:SharedArchiveFile=`"$target\cds\application.jsa`" -Dspring.aot.enabled=true -jar `"$target\cds\application.jar`"")
+            }
+        }
+        "native" {
+            # .exe on Windows, no extension when PowerShell runs on Linux or macOS
+            $binary = @("$target\$module.exe", "$target\$module") | Where-Object { Test-Path $_ -PathType Leaf } | Select-Object -First 1
+            if ($binary) { return @($binary, $null) }
+        }
+    }
+    return $null
+}
+
+"{0,-42} {1,-8} {2}" -f "SERVICE", "MODE", "TIME TO FIRST RECORD"
+foreach ($module in $Modules) {
+    foreach ($mode in $Modes) {
+        $launch = Get-LaunchCommand $module $mode
+        if (-not $launch) {
+            "{0,-42} {1,-8} {2}" -f $module, $mode, "not built"
+            continue
+        }
+
+        $log = New-TemporaryFile
+        $stopwatch = [System.Diagnostics.Stopwatch]::StartNew()
+        $startArgs = @{
+            FilePath               = $launch[0]
+            WorkingDirectory       = Join-Path $Root $module
+            RedirectStandardOutput = $log.FullName
+            RedirectStandardError  = "$($log.FullName).err"
+        }
+        # Start-Process rejects an empty argument list (native binaries take no arguments)
+        if ($launch[1]) { $startArgs.ArgumentList = $launch[1] }
+        $process = Start-Process @startArgs -NoNewWindow -PassThru
+
+        $result = "timeout after ${TimeoutSeconds}s"
+        while ($stopwatch.Elapsed.TotalSeconds -lt $TimeoutSeconds) {
+            if (Select-String -Path $log.FullName -Pattern $Markers[$module] -SimpleMatch -Quiet) {
+                $result = "$($stopwatch.ElapsedMilliseconds) ms"
+                break
+            }
+            if ($process.HasExited) {
+                $result = "exited early, see $($log.FullName)"
+                break
+            }
+            Start-Sleep -Milliseconds 50
+        }
+
+        if (-not $process.HasExited) {
+            # Forced stop: the consumer does not leave its group, so the next run of the same service
+            # may include a rebalance delay until the broker expires the old member (session.timeout.ms)
+            Stop-Process -Id $process.Id -Force
+            $process.WaitForExit(30000) | Out-Null
+        }
+        "{0,-42} {1,-8} {2}" -f $module, $mode, $result
+    }
+}
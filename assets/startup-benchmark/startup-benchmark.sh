@@ -0,0 +1,107 @@
+#!/bin/bash
+# Startup benchmark (POSIX)
+# Reports the time from process launch to the first consumed (or produced) record for each service
+# and each startup mode:
+#   jar    - plain fat jar                      (mvn package)
+#   cds    - AOT + class-data-sharing archive   (mvn -Pcds package)
+#   native - GraalVM native image               (mvn -Pnative native:compile, requires a GraalVM JDK)
+# Modes whose artifact has not been built are skipped.
+#
+# Prerequisites: Kafka running locally (docker-compose-kafka.yml) and records flowing, i.e. the producers
+# (and the stream processor for the websocket service) are already running when a consumer is measured.
+#
+# Usage: ./startup-benchmark.sh [module...]     e.g. ./startup-benchmark.sh workshop-kafka-train-consumer-dashboard
+# Environment: MODES (default "jar cds native"), TIMEOUT_SECONDS (default 120)
+
+set -uo pipefail
+
+ROOT="$(cd "$(dirname "$0")/../.." && pwd)"
+MODES="${MODES:-jar cds native}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-120}"
+
+# Log line printed by each service when it handles its first record
+marker() {
+  case "$1" in
+    workshop-kafka-train-producer)           echo "Sent position update" ;;
+    workshop-kafka-train-avro-producer)      echo "Sent position for" ;;
+    workshop-kafka-train-consumer-dashboard) echo "Received position for train" ;;
+    workshop-kafka-train-avro-consumer)      echo "Received:" ;;
+    workshop-kafka-train-websocket)          echo "Received speed update" ;;
+    # The stream processor does not log records: measure until its partitions are assigned and it is processing
+    workshop-kafka-train-streams-analysis)   echo "State transition from REBALANCING to RUNNING" ;;
+  esac
+}
+
+# Prints the launch command of a module in a mode, or nothing if that mode has not been built
+command_for() {
+  local target="$ROOT/$1/target"
+  case "$2" in
+    jar)
+      local jar
+      jar=$(ls "$target"/*.jar 2>/dev/null | grep -v -- '-plain.jar' | head -n 1)
+      [ -n "$jar" ] && echo "java -jar $jar" ;;
+    cds)
+      [ -f "$target/cds/application.jsa" ] && \
+        echo "java -XX:SharedArchiveFile=$target/cds/application.jsa -Dspring.aot.enabled=true -jar $target/cds/application.jar" ;;
+    native)
+      [ -x "$target/$1" ] && echo "$target/$1" ;;
+  esac
+}
+
+now_ms() {
+  date +%s%3N
+}
+
+# Graceful stop so consumers leave their group (otherwise the next run waits for a session timeout)
+stop() {
+  kill "$1" 2>/dev/null
+  for _ in $(seq 1 300); do
+    kill -0 "$1" 2>/dev/null || break
+    sleep 0.1
+  done
+  kill -9 "$1" 2>/dev/null
+  wait "$1" 2>/dev/null
+}
+
+MODULES=("$@")
+if [ ${#MODULES[@]} -eq 0 ]; then
+  MODULES=(workshop-kafka-train-producer workshop-kafka-train-avro-producer workshop-kafka-train-consumer-dashboard
+           workshop-kafka-train-avro-consumer workshop-kafka-train-streams-analysis workshop-kafka-train-websocket)
+fi
+
+printf "%-42s %-8s %s\n" "SERVICE" "MODE" "TIME TO FIRST RECORD"
+for module in "${MODULES[@]}"; do
+  for mode in $MODES; do
+    cmd=$(command_for "$module" "$mode")
+    if [ -z "$cmd" ]; then
+      printf "%-42s %-8s %s\n" "$module" "$mode" "not built"
+      continue
+    fi
+
+    log=$(mktemp)
+    start=$(now_ms)
+    (cd "$ROOT/$module" && exec $cmd) > "$log" 2>&1 &
+    pid=$!
+
+    result="timeout after ${TIMEOUT_SECONDS}s"
+    deadline=$(( start + TIMEOUT_SECONDS * 1000 ))
+    while [ "$(now_ms)" -lt "$deadline" ]; do
+      if grep -q -- "$(marker "$module")" "$log"; then
+        result="$(( $(now_ms) - start )) ms"
+        break
+      fi
+      if ! kill -0 "$pid" 2>/dev/null; then
+        result="exited early, see $log"
+        break
+      fi
+      sleep 0.05
+    done
+
+    stop "$pid"
+    printf "%-42s %-8s %s\n" "$module" "$mode" "$result"
+    case "$result" in
+      exited*) ;;
+      *) rm -f "$log" ;;
+    esac
+  done
+done
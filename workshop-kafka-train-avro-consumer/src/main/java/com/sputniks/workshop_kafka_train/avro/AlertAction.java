@@ -0,0 +1,13 @@
+package com.sputniks.workshop_kafka_train.avro;
+
+/**
+ * An automated response to a train alert (paging, ticketing, a control-system call, ...).
+ *
+ * Implementations may block: they are always executed by the {@link AlertActionDispatcher}
+ * on its own executor, never on the Kafka listener thread.
+ */
+@FunctionalInterface
+public interface AlertAction {
+
+    void execute(TrainAlert alert) throws Exception;
+}
@@ -0,0 +1,301 @@
+package com.sputniks.workshop_kafka_train.avro;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link AlertAction}s off the Kafka listener thread so slow responses never stall consumption.
+ *
+ * DISPATCH GUARANTEES:
+ * - Bounded: when max-in-flight alerts are pending, the alert listener container is paused until one completes
+ * - Per-train ordering: alerts of the same train run one after the other, different trains in parallel
+ * - Timeouts and retries: an attempt is interrupted once it runs longer than the timeout, and the next
+ *   attempt (or the next alert of the train) only starts once the previous action has actually returned
+ * - Deduplication: a redelivered alert is acknowledged once the original has completed, never before
+ * - At-least-once: a partition is only committed up to its oldest alert still pending, see {@link AlertOffsets}.
+ *   Commits happen on the consumer thread, when the next alert arrives or when the container reports it is idle,
+ *   so a slow action holds back the commit of its partition but never the next poll
+ *
+ * Workers are virtual threads on Java 21+ and platform threads before. The Docker image runs Java 17,
+ * so there the pool is max-in-flight platform threads.
+ */
+@Service
+public class AlertActionDispatcher implements ConsumerAwareRebalanceListener, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertActionDispatcher.class);
+
+    private final AlertAction action;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timeouts;
+    private final int maxInFlight;
+    private final long timeoutMs;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final AlertOffsets offsets = new AlertOffsets();
+
+    // Guarded by this: number of accepted alerts not completed yet, and whether the container is paused
+    private int inFlight = 0;
+    private boolean paused = false;
+
+    // Last pending alert of each train: the next alert of that train is chained behind it
+    private final ConcurrentMap<String, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+
+    // Alerts accepted but not completed yet, by alertId: duplicates wait for the original
+    private final ConcurrentMap<String, CompletableFuture<Void>> pendingAlerts = new ConcurrentHashMap<>();
+
+    // Recently completed (or parked) alert ids, evicted oldest-first so memory stays bounded
+    private final Set<String> completedAlertIds;
+
+    public AlertActionDispatcher(AlertAction action,
+                                 KafkaListenerEndpointRegistry listenerRegistry,
+                                 @Value("${train.alerts.actions.max-in-flight:64}") int maxInFlight,
+                                 @Value("${train.alerts.actions.timeout-ms:5000}") long timeoutMs,
+                                 @Value("${train.alerts.actions.max-attempts:3}") int maxAttempts,
+                                 @Value("${train.alerts.actions.backoff-ms:500}") long backoffMs,
+                                 @Value("${train.alerts.actions.dedup-capacity:10000}") int dedupCapacity) {
+        this.action = action;
+        this.listenerRegistry = listenerRegistry;
+        this.workers = Executors.newFixedThreadPool(maxInFlight, createThreadFactory());
+        this.timeouts = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("alert-action-timeout-"));
+        this.maxInFlight = maxInFlight;
+        this.timeoutMs = timeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.completedAlertIds = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > dedupCapacity;
+                }
+            }));
+    }
+
+    /**
+     * Virtual threads are cheap enough to block on slow actions; on older runtimes fall back to platform threads.
+     * Either way one worker per in-flight alert, so an accepted alert never waits in a queue for a thread.
+     */
+    private static ThreadFactory createThreadFactory() {
+        if (Runtime.version().feature() >= 21) {
+            return new VirtualThreadTaskExecutor("alert-action-").getVirtualThreadFactory();
+        }
+        return new CustomizableThreadFactory("alert-action-");
+    }
+
+    /**
+     * Hands the alert over to the workers and returns immediately, then commits the alerts completed so far.
+     * Must be called on the consumer thread.
+     */
+    public void dispatch(ConsumerRecord<String, TrainAlert> record, Consumer<?, ?> consumer) {
+        Runnable done = offsets.track(new TopicPartition(record.topic(), record.partition()), record.offset());
+        dispatch(record.value(), done);
+        commitCompleted(consumer);
+    }
+
+    /**
+     * Runs the action of the alert on the workers and calls onComplete once it succeeded or was parked.
+     */
+    void dispatch(TrainAlert alert, Runnable onComplete) {
+        String alertId = alert.getAlertId();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+
+        CompletableFuture<Void> original = pendingAlerts.putIfAbsent(alertId, done);
+        if (original != null) {
+            log.info("🔁 Alert {} is already being handled, acknowledging it once the original completes", alertId);
+            original.thenRun(onComplete);
+            return;
+        }
+        if (completedAlertIds.contains(alertId)) {
+            pendingAlerts.remove(alertId, done);
+            log.info("🔁 Skipping duplicate alert {} for train {}", alertId, alert.getTrainId());
+            onComplete.run();
+            return;
+        }
+
+        accept();
+
+        String trainId = alert.getTrainId();
+        CompletableFuture<Void> previous = lanes.put(trainId, done);
+        CompletableFuture<Void> start = previous != null ? previous : CompletableFuture.completedFuture(null);
+
+        done.whenComplete((result, error) -> {
+            lanes.remove(trainId, done);
+            complete();
+            // Completed exceptionally only on shutdown: leave the offset pending so the alert is redelivered
+            if (error == null) {
+                onComplete.run();
+            }
+        });
+        start.whenComplete((result, error) -> workers.execute(() -> process(alert, done)));
+    }
+
+    private void process(TrainAlert alert, CompletableFuture<Void> done) {
+        String alertId = alert.getAlertId();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                String failure = runAttempt(alert);
+                if (failure == null) {
+                    break;
+                }
+                if (attempt >= maxAttempts) {
+                    // Parked: the offset is committed anyway so one poisoned alert cannot block the partition
+                    log.error("🅿️ Parking alert {} for train {} after {} attempts: {}",
+                        alertId, alert.getTrainId(), maxAttempts, failure);
+                    break;
+                }
+                log.warn("⏳ Action for alert {} failed (attempt {}/{}): {}", alertId, attempt, maxAttempts, failure);
+                Thread.sleep(backoffMs * attempt);
+            }
+            completedAlertIds.add(alertId);
+            pendingAlerts.remove(alertId, done);
+            done.complete(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendingAlerts.remove(alertId, done);
+            done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Runs one attempt on the calling worker and returns null on success, or the failure reason.
+     * The timeout starts with the action and cancels it by interrupting the worker; either way the action
+     * has returned by the time this method does, so attempts never overlap.
+     */
+    private String runAttempt(TrainAlert alert) throws InterruptedException {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            action.execute(alert);
+            return null;
+        });
+        ScheduledFuture<?> timeout = timeouts.schedule(() -> task.cancel(true), timeoutMs, TimeUnit.MILLISECONDS);
+        task.run();
+        timeout.cancel(false);
+
+        // The interrupt from cancel(true) must not leak into the backoff or the next alert
+        boolean interrupted = Thread.interrupted();
+        if (task.isCancelled()) {
+            return "timed out after " + timeoutMs + "ms";
+        }
+        if (interrupted) {
+            throw new InterruptedException("Alert action worker interrupted");
+        }
+        try {
+            task.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause().toString();
+        }
+    }
+
+    /**
+     * Commits completed alerts while no new alert arrives, including while the container is paused.
+     * Idle events are published on the consumer thread.
+     */
+    @EventListener(condition = "event.listenerId.startsWith('" + AvroConsumerService.ALERT_LISTENER_ID + "')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        commitCompleted(event.getConsumer());
+    }
+
+    private void commitCompleted(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> completed = offsets.committable();
+        if (!completed.isEmpty()) {
+            consumer.commitAsync(completed, (committed, e) -> {
+                if (e != null) {
+                    // A later commit covers these offsets; at worst the alerts are redelivered and deduplicated
+                    log.warn("Could not commit alert offsets {}: {}", committed, e.toString());
+                }
+            });
+        }
+    }
+
+    /** Commits what is done before the partitions move; alerts still pending will be redelivered to the new owner. */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> completed = offsets.remove(partitions);
+        if (!completed.isEmpty()) {
+            consumer.commitSync(completed);
+        }
+    }
+
+    /** Lost partitions are owned by another consumer already: committing would fail, just forget them. */
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        offsets.remove(partitions);
+    }
+
+    private synchronized void accept() {
+        inFlight++;
+        if (inFlight >= maxInFlight && !paused) {
+            log.warn("⏸️ {} alert actions pending, pausing alert consumption", inFlight);
+            setPaused(true);
+        }
+    }
+
+    private synchronized void complete() {
+        inFlight--;
+        if (inFlight < maxInFlight && paused) {
+            log.info("▶️ Alert actions caught up, resuming alert consumption");
+            setPaused(false);
+        }
+    }
+
+    /**
+     * The container keeps polling while paused, so it still commits the acks of completing actions
+     * and stays within max.poll.interval.ms.
+     */
+    private void setPaused(boolean pause) {
+        paused = pause;
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(AvroConsumerService.ALERT_LISTENER_ID);
+        if (container == null) {
+            return; // Not consuming through a listener container, e.g. in unit tests
+        }
+        if (pause) {
+            container.pause();
+        } else {
+            container.resume();
+        }
+    }
+
+    synchronized boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+        }
+        timeouts.shutdownNow();
+    }
+}
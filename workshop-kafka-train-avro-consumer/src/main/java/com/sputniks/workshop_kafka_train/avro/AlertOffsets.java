@@ -0,0 +1,85 @@
+package com.sputniks.workshop_kafka_train.avro;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Offsets of the alerts handed to the {@link AlertActionDispatcher}, per partition.
+ *
+ * Actions complete out of order across trains, so a partition can only be committed up to its oldest
+ * alert still pending: every record before it is done (action succeeded, parked, or skipped as a duplicate).
+ * Records are tracked and offsets collected on the consumer thread; workers only mark records done.
+ */
+class AlertOffsets {
+
+    private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a record handed to the dispatcher and returns the callback that marks it done.
+     * The callback is bound to the current assignment: once the partition is revoked it has no effect.
+     */
+    Runnable track(TopicPartition partition, long offset) {
+        PartitionOffsets offsets = partitions.computeIfAbsent(partition, tp -> new PartitionOffsets());
+        offsets.add(offset);
+        return () -> offsets.done(offset);
+    }
+
+    /** Offsets to commit for the partitions whose completed prefix advanced since the last call. */
+    Map<TopicPartition, OffsetAndMetadata> committable() {
+        return committable(partitions.keySet());
+    }
+
+    /** Stops tracking the given partitions and returns their last offsets to commit. */
+    Map<TopicPartition, OffsetAndMetadata> remove(Collection<TopicPartition> revoked) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = committable(revoked);
+        revoked.forEach(partitions::remove);
+        return offsets;
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> committable(Collection<TopicPartition> candidates) {
+        Map<TopicPartition, OffsetAndMetadata> result = new HashMap<>();
+        for (TopicPartition partition : candidates) {
+            PartitionOffsets offsets = partitions.get(partition);
+            long next = offsets == null ? -1 : offsets.advance();
+            if (next >= 0) {
+                result.put(partition, new OffsetAndMetadata(next));
+            }
+        }
+        return result;
+    }
+
+    private static class PartitionOffsets {
+        private final TreeSet<Long> pending = new TreeSet<>();
+        private long next = -1;       // Offset after the last tracked record
+        private long committed = -1;  // Last offset returned for commit, or the first tracked offset
+
+        synchronized void add(long offset) {
+            if (committed < 0) {
+                committed = offset; // Where consumption started: committing it again would change nothing
+            }
+            pending.add(offset);
+            next = offset + 1;
+        }
+
+        synchronized void done(long offset) {
+            pending.remove(offset);
+        }
+
+        /** Returns the new offset to commit, or -1 if the completed prefix did not move. */
+        synchronized long advance() {
+            // Read from the tracked offsets rather than counted: offsets may have gaps (compaction, transaction markers)
+            long completedUpTo = pending.isEmpty() ? next : pending.first();
+            if (completedUpTo <= committed) {
+                return -1;
+            }
+            committed = completedUpTo;
+            return completedUpTo;
+        }
+    }
+}
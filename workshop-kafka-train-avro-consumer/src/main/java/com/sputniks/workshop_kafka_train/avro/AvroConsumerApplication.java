@@ -2,8 +2,10 @@ package com.sputniks.workshop_kafka_train.avro;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(AvroRuntimeHints.class)
 public class AvroConsumerApplication {
     public static void main(String[] args) {
         SpringApplication.run(AvroConsumerApplication.class, args);
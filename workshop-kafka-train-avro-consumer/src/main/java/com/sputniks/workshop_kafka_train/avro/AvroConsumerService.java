@@ -1,5 +1,6 @@
 package com.sputniks.workshop_kafka_train.avro;
 
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +20,15 @@ public class AvroConsumerService {
 
     private static final Logger log = LoggerFactory.getLogger(AvroConsumerService.class);
 
+    // Used by the AlertActionDispatcher to pause this listener while too many alert actions are pending
+    static final String ALERT_LISTENER_ID = "train-alert-listener";
+
+    private final AlertActionDispatcher alertActionDispatcher;
+
+    public AvroConsumerService(AlertActionDispatcher alertActionDispatcher) {
+        this.alertActionDispatcher = alertActionDispatcher;
+    }
+
     /**
      * Consumes train position data with schema evolution support
      * 
@@ -76,9 +86,11 @@ public class AvroConsumerService {
      * - Enums prevent invalid alert types at the schema level
      * - Type-safe consumption with generated classes
      * - Metadata map allows flexible extension without schema changes
+     * - Automated actions run on the dispatcher, which commits the offset once they are done
      */
-    @KafkaListener(topics = "train-alerts-avro", groupId = "avro-consumer-group")
-    public void consumeTrainAlert(ConsumerRecord<String, TrainAlert> record) {
+    @KafkaListener(id = ALERT_LISTENER_ID, topics = "train-alerts-avro", groupId = "avro-consumer-group",
+        containerFactory = "alertListenerContainerFactory")
+    public void consumeTrainAlert(ConsumerRecord<String, TrainAlert> record, Consumer<?, ?> consumer) {
         TrainAlert alert = record.value();
         
         String emoji = switch (alert.getSeverity()) {
@@ -100,10 +112,7 @@ public class AvroConsumerService {
             log.debug("   Metadata: {}", alert.getMetadata());
         }
         
-        // Handle critical alerts specially
-        if (alert.getSeverity() == Severity.CRITICAL) {
-            log.error("🚨 CRITICAL ALERT requires immediate action: {}", alert.getMessage());
-            // In a real system, this would trigger automated responses
-        }
+        // Automated responses may block, so they never run on the poll thread
+        alertActionDispatcher.dispatch(record, consumer);
     }
 }
@@ -0,0 +1,26 @@
+package com.sputniks.workshop_kafka_train.avro;
+
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Native-image hints for reading alerts and positions.
+ *
+ * With specific.avro.reader the deserializer loads the generated class named by the writer schema
+ * and instantiates it reflectively; Kafka creates KafkaAvroDeserializer from the configured class.
+ */
+public class AvroRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> avroClass : new Class<?>[] {TrainPosition.class, TrainAlert.class, AlertType.class, Severity.class}) {
+            hints.reflection().registerType(avroClass,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS,
+                MemberCategory.DECLARED_FIELDS);
+        }
+        hints.reflection().registerType(KafkaAvroDeserializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
@@ -0,0 +1,24 @@
+package com.sputniks.workshop_kafka_train.avro;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default automated response: escalates critical alerts.
+ *
+ * In a real system this is where paging, ticketing or control-system calls would go.
+ * Those may be slow, which is fine: the {@link AlertActionDispatcher} runs this off the listener thread.
+ */
+@Component
+public class CriticalAlertAction implements AlertAction {
+
+    private static final Logger log = LoggerFactory.getLogger(CriticalAlertAction.class);
+
+    @Override
+    public void execute(TrainAlert alert) {
+        if (alert.getSeverity() == Severity.CRITICAL) {
+            log.error("🚨 CRITICAL ALERT requires immediate action: {}", alert.getMessage());
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -47,4 +48,23 @@ public class KafkaConsumerConfig {
         factory.setConsumerFactory(avroConsumerFactory());
         return factory;
     }
+
+    /**
+     * Alert offsets are committed by the {@link AlertActionDispatcher} once their action completes, possibly out
+     * of order across trains, so the container never commits them (MANUAL ack mode, nothing is acknowledged).
+     * Idle events let the dispatcher commit while no alert arrives, the rebalance listener before partitions move.
+     * Pause-immediate makes the dispatcher's pause take effect after the current record, not after the whole poll.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> alertListenerContainerFactory(
+            AlertActionDispatcher alertActionDispatcher) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(avroConsumerFactory());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setIdleEventInterval(1000L);
+        factory.getContainerProperties().setConsumerRebalanceListener(alertActionDispatcher);
+        factory.getContainerProperties().setPauseImmediate(true);
+        return factory;
+    }
 }
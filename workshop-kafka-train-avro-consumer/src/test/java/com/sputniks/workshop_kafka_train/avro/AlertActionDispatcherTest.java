@@ -0,0 +1,215 @@
+package com.sputniks.workshop_kafka_train.avro;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlertActionDispatcherTest {
+
+    private AlertActionDispatcher dispatcher;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+    }
+
+    private static final int MAX_IN_FLIGHT = 8;
+
+    private AlertActionDispatcher dispatcher(AlertAction action, long timeoutMs, int maxAttempts) {
+        dispatcher = new AlertActionDispatcher(action, new KafkaListenerEndpointRegistry(),
+            MAX_IN_FLIGHT, timeoutMs, maxAttempts, 10, 100);
+        return dispatcher;
+    }
+
+    private static TrainAlert alert(String alertId, String trainId) {
+        return TrainAlert.newBuilder()
+            .setAlertId(alertId)
+            .setTrainId(trainId)
+            .setAlertType(AlertType.MAINTENANCE)
+            .setSeverity(Severity.HIGH)
+            .setMessage("test")
+            .setTimestamp(0)
+            .build();
+    }
+
+    /** Sleeps for the whole duration even when interrupted, like an action that ignores cancellation. */
+    private static void sleepUninterruptibly(long millis) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        boolean interrupted = false;
+        while (System.nanoTime() < end) {
+            try {
+                Thread.sleep(Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime())));
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void alertsOfTheSameTrainRunInOrder() throws InterruptedException {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        dispatcher(alert -> {
+            events.add("start " + alert.getAlertId());
+            if (alert.getAlertId().equals("a1")) {
+                Thread.sleep(200);
+            }
+            events.add("end " + alert.getAlertId());
+        }, 5000, 1);
+
+        CountDownLatch acks = new CountDownLatch(3);
+        dispatcher.dispatch(alert("a1", "T-1"), acks::countDown);
+        dispatcher.dispatch(alert("a2", "T-1"), acks::countDown);
+        dispatcher.dispatch(alert("b1", "T-2"), acks::countDown);
+
+        assertThat(acks.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(events.indexOf("start a2")).isGreaterThan(events.indexOf("end a1"));
+        // Another train is not held back by the slow action
+        assertThat(events.indexOf("end b1")).isLessThan(events.indexOf("end a1"));
+    }
+
+    @Test
+    void retryAfterTimeoutDoesNotOverlapThePreviousAttempt() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger attempts = new AtomicInteger();
+        dispatcher(alert -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            attempts.incrementAndGet();
+            sleepUninterruptibly(150);
+            running.decrementAndGet();
+        }, 50, 2);
+
+        CountDownLatch acks = new CountDownLatch(2);
+        dispatcher.dispatch(alert("a1", "T-1"), acks::countDown);
+        dispatcher.dispatch(alert("a2", "T-1"), acks::countDown);
+
+        assertThat(acks.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(attempts.get()).isEqualTo(4);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failingAlertIsParkedThenAcknowledged() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        dispatcher(alert -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("pager unavailable");
+        }, 1000, 3);
+
+        CountDownLatch acks = new CountDownLatch(1);
+        dispatcher.dispatch(alert("a1", "T-1"), acks::countDown);
+
+        assertThat(acks.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    void duplicateIsAcknowledgedOnlyOnceTheOriginalCompletes() throws InterruptedException {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher(alert -> {
+            executions.incrementAndGet();
+            release.await();
+        }, 5000, 1);
+
+        CountDownLatch originalAck = new CountDownLatch(1);
+        CountDownLatch duplicateAck = new CountDownLatch(1);
+        dispatcher.dispatch(alert("a1", "T-1"), originalAck::countDown);
+        dispatcher.dispatch(alert("a1", "T-1"), duplicateAck::countDown);
+
+        assertThat(duplicateAck.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        release.countDown();
+        assertThat(originalAck.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(duplicateAck.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Redelivered after completion: acknowledged right away without running the action again
+        CountDownLatch redeliveryAck = new CountDownLatch(1);
+        dispatcher.dispatch(alert("a1", "T-1"), redeliveryAck::countDown);
+        assertThat(redeliveryAck.getCount()).isZero();
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void pausesAtMaxInFlightAndResumesWhenAnAlertCompletes() throws InterruptedException {
+        Semaphore release = new Semaphore(0);
+        dispatcher(alert -> release.acquire(), 5000, 1);
+
+        CountDownLatch acks = new CountDownLatch(1);
+        for (int i = 1; i < MAX_IN_FLIGHT; i++) {
+            dispatcher.dispatch(alert("a" + i, "T-" + i), acks::countDown);
+        }
+        assertThat(dispatcher.isPaused()).isFalse();
+
+        dispatcher.dispatch(alert("a" + MAX_IN_FLIGHT, "T-" + MAX_IN_FLIGHT), acks::countDown);
+        assertThat(dispatcher.isPaused()).isTrue();
+
+        release.release();
+        assertThat(acks.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.isPaused()).isFalse();
+        release.release(MAX_IN_FLIGHT);
+    }
+
+    @Test
+    void commitsOnlyTheCompletedPrefixOfEachPartition() throws InterruptedException {
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        dispatcher(alert -> {
+            if (alert.getAlertId().equals("slow")) {
+                releaseSlow.await();
+            }
+            if (alert.getAlertId().equals("poisoned")) {
+                throw new IllegalStateException("pager unavailable");
+            }
+        }, 5000, 2);
+        TopicPartition partition = new TopicPartition("train-alerts-avro", 0);
+        Map<TopicPartition, Long> commits = new ConcurrentHashMap<>();
+        MockConsumer<String, TrainAlert> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                                 OffsetCommitCallback callback) {
+                offsets.forEach((tp, offset) -> commits.put(tp, offset.offset()));
+                super.commitAsync(offsets, callback);
+            }
+        };
+
+        dispatcher.dispatch(record(partition, 0, alert("slow", "T-1")), consumer);
+        dispatcher.dispatch(record(partition, 1, alert("poisoned", "T-2")), consumer);
+        dispatcher.dispatch(record(partition, 2, alert("ok", "T-3")), consumer);
+
+        // Offsets 1 and 2 complete (the poisoned one is parked) but offset 0 still runs: nothing to commit
+        Thread.sleep(300);
+        dispatcher.dispatch(record(partition, 3, alert("ok2", "T-4")), consumer);
+        assertThat(commits).isEmpty();
+
+        releaseSlow.countDown();
+        Thread.sleep(300);
+        dispatcher.dispatch(record(partition, 4, alert("ok2", "T-4")), consumer); // Duplicate: done right away
+        assertThat(commits).containsEntry(partition, 5L);
+    }
+
+    private static ConsumerRecord<String, TrainAlert> record(TopicPartition partition, long offset, TrainAlert alert) {
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, alert.getTrainId(), alert);
+    }
+}
@@ -0,0 +1,26 @@
+package com.sputniks.workshop_kafka_train.avro;
+
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Native-image hints for writing positions and alerts.
+ *
+ * SpecificDatumWriter reads the SCHEMA$ field and the getters of the generated classes reflectively,
+ * and Kafka creates KafkaAvroSerializer from the configured class.
+ */
+public class AvroRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> avroClass : new Class<?>[] {TrainPosition.class, TrainAlert.class, AlertType.class, Severity.class}) {
+            hints.reflection().registerType(avroClass,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS,
+                MemberCategory.DECLARED_FIELDS);
+        }
+        hints.reflection().registerType(KafkaAvroSerializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
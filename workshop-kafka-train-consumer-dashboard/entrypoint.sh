@@ -8,4 +8,4 @@ sleep 15
 
 echo "--- Wait finished. Starting the Spring Boot application ---"
 
-exec java -jar /app/app.jar
\ No newline at end of file
+exec java -XX:SharedArchiveFile=/app/application/application.jsa -Dspring.aot.enabled=true -jar /app/application/application.jar
\ No newline at end of file
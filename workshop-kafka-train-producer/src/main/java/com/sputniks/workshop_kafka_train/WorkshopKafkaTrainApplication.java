@@ -1,9 +1,11 @@
 package com.sputniks.workshop_kafka_train;
 
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication
+@RegisterReflectionForBinding(TrainPosition.class)
 public class WorkshopKafkaTrainApplication {
 
 	public static void main(String[] args) {
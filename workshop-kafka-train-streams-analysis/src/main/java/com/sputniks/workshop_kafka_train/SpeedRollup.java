@@ -0,0 +1,51 @@
+package com.sputniks.workshop_kafka_train;
+
+/**
+ * Mergeable speed summary of one train over one time window.
+ *
+ * Unlike an average, (count, sum, min, max) can be merged without losing precision:
+ * two 2-second rollups merged together give exactly the rollup of the 4 seconds they cover.
+ * This is what lets each rollup tier be computed from the tier below instead of from raw positions.
+ * Kafka Streams requires stateful aggregates to be serializable and public: public fields keep it serializable by the JsonSerde.
+ */
+public class SpeedRollup {
+    public String trainId;
+    public long windowStart;
+    public long windowEnd;
+    public long count = 0;
+    public long sum = 0;
+    public int min = 0;
+    public int max = 0;
+
+    /** Adds one raw speed sample (used by the first tier only). */
+    public SpeedRollup add(int speed) {
+        min = count == 0 ? speed : Math.min(min, speed);
+        max = count == 0 ? speed : Math.max(max, speed);
+        count++;
+        sum += speed;
+        return this;
+    }
+
+    /** Merges a finished rollup of the tier below into this one. */
+    public SpeedRollup merge(SpeedRollup other) {
+        if (other.count == 0) return this;
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        sum += other.sum;
+        return this;
+    }
+
+    /** Stamps the train and window this rollup covers before it is published. */
+    public SpeedRollup forWindow(String trainId, long windowStart, long windowEnd) {
+        this.trainId = trainId;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        return this;
+    }
+
+    public double computeAverage() {
+        if (count == 0) return 0.0;
+        return (double) sum / count;
+    }
+}
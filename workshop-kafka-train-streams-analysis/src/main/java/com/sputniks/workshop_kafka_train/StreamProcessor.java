@@ -1,9 +1,12 @@
 package com.sputniks.workshop_kafka_train;
 
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.kstream.Suppressed.BufferConfig;
+import org.apache.kafka.streams.state.WindowStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.support.serializer.JsonSerde;
 import org.springframework.stereotype.Component;
@@ -14,39 +17,37 @@ import java.time.Duration;
 /**
  * This StreamProcessor class defines the Kafka Streams topology that processes incoming train location data in real time, 
  * calculates the average speed per train every 10 seconds, and sends this information to another topic.
+ * It also maintains cascading speed rollups (2 s -> 1 min -> 15 min -> 1 h) for longer-range analytics.
+ * Raw positions are aggregated once, into the 2-second SpeedRollup table; everything else is derived from it.
  */
 @Component
 public class StreamProcessor {
 
     /**
-     * This is a simple accumulator used to:
-     * - Track how many speed samples we have seen (count)
-     * - Accumulate the total sum of speeds (sum)
-     * - Compute the average when needed (sum / count)
-     * Kafka Streams requires stateful aggregation functions to be serializable and public, hence this is a public static class.
+     * One rollup tier: window size, how long its windowed store keeps history, and the topic it is published to.
+     * Topic retention is configured when the topic is created (see docker-compose.yml).
      */
-    public static class AverageAggregator {
-        public int count = 0;
-        public long sum = 0;
-
-        public AverageAggregator add(int speed) {
-            count++;
-            sum += speed;
-            return this;
+    private record RollupTier(String name, Duration size, Duration retention) {
+        String storeName() {
+            return "speed-rollup-" + name;
         }
 
-        public double computeAverage() {
-            if (count == 0) return 0.0;
-            return (double) sum / count;
+        String topic() {
+            return "train-speed-rollup-" + name;
         }
     }
 
+    private static final RollupTier TIER_2S = new RollupTier("2s", Duration.ofSeconds(2), Duration.ofDays(1));
+    private static final RollupTier TIER_1M = new RollupTier("1m", Duration.ofMinutes(1), Duration.ofDays(7));
+    private static final RollupTier TIER_15M = new RollupTier("15m", Duration.ofMinutes(15), Duration.ofDays(30));
+    private static final RollupTier TIER_1H = new RollupTier("1h", Duration.ofHours(1), Duration.ofDays(365));
+
     @Autowired
     public void buildTopology(StreamsBuilder builder) {
         /* JsonSerde is used to serialize/deserialize our custom objects to/from JSON. */
         JsonSerde<TrainPosition> positionSerde = new JsonSerde<>(TrainPosition.class);
         JsonSerde<TrainAverageSpeed> avgSpeedSerde = new JsonSerde<>(TrainAverageSpeed.class);
-        JsonSerde<AverageAggregator> aggregatorSerde = new JsonSerde<>(AverageAggregator.class);
+        JsonSerde<SpeedRollup> rollupSerde = new JsonSerde<>(SpeedRollup.class);
 
         /* Stream from the input topic: the key is trainId */
         KStream<String, TrainPosition> inputStream = builder.stream(
@@ -55,31 +56,33 @@ public class StreamProcessor {
         );
 
         /* 
-         * Group by key (trainId), create 10-second tumbling windows, and aggregate
+         * Group by key (trainId), create 2-second tumbling windows, and aggregate
          * - Group by key: each train's messages are grouped by their ID (trainId).
-         * - Apply a 10-second tumbling window: time is split into 10-second non-overlapping intervals.
+         * - Apply a 2-second tumbling window: time is split into 2-second non-overlapping intervals.
          * - Aggregate:
-         *     - AverageAggregator::new: creates a fresh accumulator per window.
+         *     - SpeedRollup::new: creates a fresh accumulator per window (count, sum, min and max of the speeds).
          *     - .add(value.speedKph()): adds the speed to the accumulator.
-         *     - Materialized.with(...): stores state in memory (backed by RocksDB or in-memory store).
-         * - mapValues(...): once the aggregation is done, compute the average from the accumulator.
-         * At this point, you have a KTable<Windowed<String>, Double> containing average speeds per train ID every 2 seconds.
+         *     - materialized(...): stores state in a named windowed store (backed by RocksDB).
+         * This is the only aggregation over raw positions: the live averages and all the rollup tiers derive from it.
         */
-        KTable<Windowed<String>, Double> averageSpeedTable = inputStream
+        KTable<Windowed<String>, SpeedRollup> rollupTable = inputStream
             .groupByKey(Grouped.with(Serdes.String(), positionSerde))
-            .windowedBy(TimeWindows.ofSizeWithNoGrace(Duration.ofSeconds(2)))
+            .windowedBy(TimeWindows.ofSizeWithNoGrace(TIER_2S.size()))
             .aggregate(
-                AverageAggregator::new,
-                (key, value, aggregate) -> aggregate.add(value.speedKph()),
-                Materialized.with(Serdes.String(), aggregatorSerde)
-            )
-            .mapValues(AverageAggregator::computeAverage);
+                SpeedRollup::new,
+                (key, value, rollup) -> rollup.add(value.speedKph()),
+                materialized(TIER_2S, rollupSerde)
+            );
 
         /*
+         * mapValues(...): compute the average from the accumulator.
+         * At this point, you have a KTable<Windowed<String>, Double> containing average speeds per train ID every 2 seconds.
          * KTable is a changelog of averages per window.
          * Convert the KTable back to a KStream to write to the output topic 
         */
-        KStream<String, Double> averageSpeedStream = averageSpeedTable.toStream()
+        KStream<String, Double> averageSpeedStream = rollupTable
+            .mapValues(SpeedRollup::computeAverage)
+            .toStream()
             .map((windowedKey, value) -> new KeyValue<>(windowedKey.key(), value));
 
         /*
@@ -91,5 +94,64 @@ public class StreamProcessor {
 
         /* Write to the output topic: the key is trainId and the value is averageSpeed */
         outputStream.to("train-speed-averages", Produced.with(Serdes.String(), avgSpeedSerde));
+
+        buildRollups(rollupTable, rollupSerde);
+    }
+
+    /*
+     * Cascading rollups: the 2-second tier is the table above. Every other tier merges the
+     * finished windows of the tier below, so an hour of history is 1 row per train instead of ~1800 positions.
+     * Each tier has its own windowed store (queryable by name) with its own retention, and its own topic.
+     */
+    private void buildRollups(KTable<Windowed<String>, SpeedRollup> rollupTable, JsonSerde<SpeedRollup> rollupSerde) {
+        KStream<String, SpeedRollup> rollups2s = publishFinalRollups(rollupTable, TIER_2S, rollupSerde);
+        KStream<String, SpeedRollup> rollups1m = rollUp(rollups2s, TIER_2S, TIER_1M, rollupSerde);
+        KStream<String, SpeedRollup> rollups15m = rollUp(rollups1m, TIER_1M, TIER_15M, rollupSerde);
+        rollUp(rollups15m, TIER_15M, TIER_1H, rollupSerde);
+    }
+
+    /*
+     * Merges the finished rollups of the lower tier into the windows of the upper tier.
+     * The grace period of one lower window covers the lower tier emitting its last window slightly late.
+     * The Windowed<String> key of the lower tier is mapped back to trainId, which the DSL treats as a key change:
+     * each tier therefore reads through an internal repartition topic (<application-id>-speed-rollup-<tier>-repartition).
+     * The key is in fact unchanged, so records stay on the same partition; it only costs one extra topic hop per tier.
+     */
+    private KStream<String, SpeedRollup> rollUp(KStream<String, SpeedRollup> lower, RollupTier lowerTier,
+                                                RollupTier tier, JsonSerde<SpeedRollup> rollupSerde) {
+        KTable<Windowed<String>, SpeedRollup> table = lower
+            .groupByKey(Grouped.with(tier.storeName(), Serdes.String(), rollupSerde))
+            .windowedBy(TimeWindows.ofSizeAndGrace(tier.size(), lowerTier.size()))
+            .aggregate(
+                SpeedRollup::new,
+                (key, value, rollup) -> rollup.merge(value),
+                materialized(tier, rollupSerde)
+            );
+        return publishFinalRollups(table, tier, rollupSerde);
+    }
+
+    /*
+     * Only closed windows are forwarded (suppress): each window reaches the next tier exactly once,
+     * so merging never counts the same samples twice.
+     */
+    private KStream<String, SpeedRollup> publishFinalRollups(KTable<Windowed<String>, SpeedRollup> table,
+                                                             RollupTier tier, JsonSerde<SpeedRollup> rollupSerde) {
+        KStream<String, SpeedRollup> finalRollups = table
+            .suppress(Suppressed.untilWindowCloses(BufferConfig.unbounded()).withName(tier.storeName() + "-final"))
+            .toStream()
+            .map((windowedKey, rollup) -> new KeyValue<>(
+                windowedKey.key(),
+                rollup.forWindow(windowedKey.key(), windowedKey.window().start(), windowedKey.window().end())
+            ));
+        finalRollups.to(tier.topic(), Produced.with(Serdes.String(), rollupSerde));
+        return finalRollups;
+    }
+
+    private Materialized<String, SpeedRollup, WindowStore<Bytes, byte[]>> materialized(RollupTier tier,
+                                                                                      JsonSerde<SpeedRollup> rollupSerde) {
+        return Materialized.<String, SpeedRollup, WindowStore<Bytes, byte[]>>as(tier.storeName())
+            .withKeySerde(Serdes.String())
+            .withValueSerde(rollupSerde)
+            .withRetention(tier.retention());
     }
 }
\ No newline at end of file
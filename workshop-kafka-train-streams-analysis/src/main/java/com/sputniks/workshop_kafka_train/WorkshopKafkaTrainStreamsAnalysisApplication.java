@@ -1,10 +1,12 @@
 package com.sputniks.workshop_kafka_train;
 
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.kafka.annotation.EnableKafkaStreams;
 
 @SpringBootApplication
+@RegisterReflectionForBinding({TrainPosition.class, TrainAverageSpeed.class, SpeedRollup.class})
 @EnableKafkaStreams
 public class WorkshopKafkaTrainStreamsAnalysisApplication {
 
@@ -0,0 +1,107 @@
+package com.sputniks.workshop_kafka_train;
+
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamProcessorTest {
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, TrainPosition> positions;
+    private TestOutputTopic<String, TrainAverageSpeed> averages;
+    private TestOutputTopic<String, SpeedRollup> rollups2s;
+    private TestOutputTopic<String, SpeedRollup> rollups1m;
+
+    @BeforeEach
+    void setUp() {
+        StreamsBuilder builder = new StreamsBuilder();
+        new StreamProcessor().buildTopology(builder);
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "stream-processor-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        driver = new TopologyTestDriver(builder.build(), props);
+
+        positions = driver.createInputTopic("train-locations",
+            new StringSerializer(), new JsonSerde<>(TrainPosition.class).serializer());
+        averages = driver.createOutputTopic("train-speed-averages",
+            new StringDeserializer(), new JsonSerde<>(TrainAverageSpeed.class).deserializer());
+        rollups2s = driver.createOutputTopic("train-speed-rollup-2s",
+            new StringDeserializer(), new JsonSerde<>(SpeedRollup.class).deserializer());
+        rollups1m = driver.createOutputTopic("train-speed-rollup-1m",
+            new StringDeserializer(), new JsonSerde<>(SpeedRollup.class).deserializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    private void position(long timestampMs, int speedKph) {
+        positions.pipeInput("T-1", new TrainPosition("T-1", 48.85, 2.35, speedKph), Instant.ofEpochMilli(timestampMs));
+    }
+
+    @Test
+    void rollupWindowIsEmittedOnlyOnceItCloses() {
+        position(0, 80);
+        position(500, 100);
+        position(1500, 120);
+
+        // Live averages follow every position, the 2 s rollup waits for its window to close
+        assertThat(averages.readValuesToList()).extracting(TrainAverageSpeed::averageSpeed)
+            .containsExactly(80.0, 90.0, 100.0);
+        assertThat(rollups2s.isEmpty()).isTrue();
+
+        position(2100, 60);
+        List<SpeedRollup> closed = rollups2s.readValuesToList();
+        assertThat(closed).hasSize(1);
+        assertThat(closed.get(0).windowStart).isEqualTo(0);
+        assertThat(closed.get(0).windowEnd).isEqualTo(2000);
+        assertThat(closed.get(0).count).isEqualTo(3);
+        assertThat(closed.get(0).sum).isEqualTo(300);
+        assertThat(closed.get(0).min).isEqualTo(80);
+        assertThat(closed.get(0).max).isEqualTo(120);
+
+        // Later positions close the next window without emitting the first one again
+        position(2500, 70);
+        position(4100, 90);
+        assertThat(rollups2s.readValuesToList()).extracting(rollup -> rollup.windowStart).containsExactly(2000L);
+    }
+
+    @Test
+    void oneMinuteRollupIsTheMergeOfItsTwoSecondWindows() {
+        for (long t = 0; t <= 66_000; t += 700) {
+            position(t, 30 + (int) (t / 700 * 7 % 120));
+        }
+
+        SpeedRollup expected = new SpeedRollup();
+        rollups2s.readValuesToList().stream()
+            .filter(rollup -> rollup.windowStart < 60_000)
+            .forEach(expected::merge);
+
+        List<SpeedRollup> minutes = rollups1m.readValuesToList();
+        assertThat(minutes).hasSize(1);
+        SpeedRollup minute = minutes.get(0);
+        assertThat(minute.trainId).isEqualTo("T-1");
+        assertThat(minute.windowStart).isEqualTo(0);
+        assertThat(minute.windowEnd).isEqualTo(60_000);
+        assertThat(minute.count).isEqualTo(expected.count).isEqualTo(86);
+        assertThat(minute.sum).isEqualTo(expected.sum);
+        assertThat(minute.min).isEqualTo(expected.min);
+        assertThat(minute.max).isEqualTo(expected.max);
+    }
+}
@@ -0,0 +1,11 @@
+package com.sputniks.workshop_kafka_train;
+
+/**
+ * Speed history of one train in columnar form: speeds[i] was recorded at timestamps[i] (epoch millis).
+ * Two flat arrays keep the JSON response compact compared to one object per sample.
+ */
+public record SpeedHistory(
+    String trainId,
+    long[] timestamps,
+    double[] speeds
+) {}
@@ -0,0 +1,49 @@
+package com.sputniks.workshop_kafka_train;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Serves the last N minutes of speed history in one response.
+ * The dashboard loads all trains when it connects and reloads when the user zooms.
+ */
+@RestController
+public class SpeedHistoryController {
+
+    private final SpeedHistoryStore speedHistoryStore;
+    private final long maxMinutes;
+
+    public SpeedHistoryController(SpeedHistoryStore speedHistoryStore) {
+        this.speedHistoryStore = speedHistoryStore;
+        // Longer periods would silently return a truncated history
+        this.maxMinutes = speedHistoryStore.maxPeriod().toMinutes();
+    }
+
+    @GetMapping("/api/speed-history")
+    public List<SpeedHistory> allTrains(@RequestParam(defaultValue = "5") long minutes) {
+        return speedHistoryStore.histories(period(minutes));
+    }
+
+    @GetMapping("/api/speed-history/{trainId}")
+    public ResponseEntity<SpeedHistory> train(@PathVariable String trainId,
+                                              @RequestParam(defaultValue = "5") long minutes) {
+        SpeedHistory history = speedHistoryStore.history(trainId, period(minutes));
+        return history == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(history);
+    }
+
+    private Duration period(long minutes) {
+        if (minutes < 1 || minutes > maxMinutes) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "minutes must be between 1 and " + maxMinutes + ", was " + minutes);
+        }
+        return Duration.ofMinutes(minutes);
+    }
+}
@@ -0,0 +1,68 @@
+package com.sputniks.workshop_kafka_train;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link SpeedRingBuffer} per train so clients can draw history (sparklines) without
+ * rebuilding it from the live feed. Filled by the {@link SpeedUpdateHandler}, read by the {@link SpeedHistoryController}.
+ */
+@Component
+public class SpeedHistoryStore {
+
+    private final Map<String, SpeedRingBuffer> buffers = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final long windowMs;
+
+    public SpeedHistoryStore(@Value("${train.speed-history.capacity:4096}") int capacity,
+                             @Value("${train.speed-history.window-ms:2000}") long windowMs) {
+        // Fail at startup rather than on the listener thread at the first update
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("train.speed-history.capacity must be positive, was " + capacity);
+        }
+        if (windowMs <= 0) {
+            throw new IllegalArgumentException("train.speed-history.window-ms must be positive, was " + windowMs);
+        }
+        if ((long) capacity * windowMs < 60_000) {
+            throw new IllegalArgumentException("train.speed-history.capacity * window-ms must cover at least one minute, was "
+                + (long) capacity * windowMs + " ms");
+        }
+        this.capacity = capacity;
+        this.windowMs = windowMs;
+    }
+
+    /** Longest period a buffer can hold when every window has an update: older samples are overwritten. */
+    public Duration maxPeriod() {
+        return Duration.ofMillis((long) capacity * windowMs);
+    }
+
+    public void record(String trainId, long timestamp, double averageSpeed) {
+        SpeedRingBuffer buffer = buffers.get(trainId);
+        if (buffer == null) {
+            // Only the first update of a train allocates its buffer
+            buffer = buffers.computeIfAbsent(trainId, this::newBuffer);
+        }
+        buffer.add(timestamp, averageSpeed);
+    }
+
+    public SpeedHistory history(String trainId, Duration period) {
+        SpeedRingBuffer buffer = buffers.get(trainId);
+        return buffer == null ? null : buffer.recent(trainId, period.toMillis());
+    }
+
+    public List<SpeedHistory> histories(Duration period) {
+        long periodMs = period.toMillis();
+        return buffers.entrySet().stream()
+            .map(entry -> entry.getValue().recent(entry.getKey(), periodMs))
+            .toList();
+    }
+
+    private SpeedRingBuffer newBuffer(String trainId) {
+        return new SpeedRingBuffer(capacity, windowMs);
+    }
+}
@@ -0,0 +1,76 @@
+package com.sputniks.workshop_kafka_train;
+
+/**
+ * Fixed-size speed history of one train.
+ *
+ * Two parallel primitive arrays are used as a ring: recording an update never allocates, and once full
+ * the oldest sample is overwritten. Memory is 16 bytes per slot, whatever the update rate.
+ *
+ * The stream processor revises the average of the current window with every position it receives, so
+ * updates falling in the same window overwrite the last slot: one slot holds the latest average of one window.
+ */
+public class SpeedRingBuffer {
+
+    private final long[] timestamps;
+    private final double[] speeds;
+    private final long windowMs;
+    private int next = 0; // slot written by the next update
+    private int size = 0;
+
+    public SpeedRingBuffer(int capacity, long windowMs) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, was " + capacity);
+        }
+        if (windowMs <= 0) {
+            throw new IllegalArgumentException("windowMs must be positive, was " + windowMs);
+        }
+        this.timestamps = new long[capacity];
+        this.speeds = new double[capacity];
+        this.windowMs = windowMs;
+    }
+
+    public synchronized void add(long timestamp, double speed) {
+        if (size > 0) {
+            int last = (next - 1 + timestamps.length) % timestamps.length;
+            long window = timestamp / windowMs;
+            long lastWindow = timestamps[last] / windowMs;
+            if (window == lastWindow) {
+                timestamps[last] = timestamp;
+                speeds[last] = speed;
+                return;
+            }
+            if (window < lastWindow) {
+                return; // Late revision of an older window: the ring stays in timestamp order
+            }
+        }
+        timestamps[next] = timestamp;
+        speeds[next] = speed;
+        next = (next + 1) % timestamps.length;
+        if (size < timestamps.length) size++;
+    }
+
+    /**
+     * Copies the samples of the given period, counted back from the newest sample, oldest first.
+     * Anchoring on the newest sample keeps every timestamp on the Kafka record clock.
+     */
+    public synchronized SpeedHistory recent(String trainId, long periodMs) {
+        int capacity = timestamps.length;
+        int oldest = (next - size + capacity) % capacity;
+        long sinceTimestamp = size == 0 ? 0 : timestamps[(next - 1 + capacity) % capacity] - periodMs;
+
+        int skipped = 0;
+        while (skipped < size && timestamps[(oldest + skipped) % capacity] < sinceTimestamp) {
+            skipped++;
+        }
+
+        int count = size - skipped;
+        long[] resultTimestamps = new long[count];
+        double[] resultSpeeds = new double[count];
+        for (int i = 0; i < count; i++) {
+            int slot = (oldest + skipped + i) % capacity;
+            resultTimestamps[i] = timestamps[slot];
+            resultSpeeds[i] = speeds[slot];
+        }
+        return new SpeedHistory(trainId, resultTimestamps, resultSpeeds);
+    }
+}
@@ -0,0 +1,11 @@
+package com.sputniks.workshop_kafka_train;
+
+/**
+ * Live update pushed to the browsers: the average speed plus the Kafka record timestamp,
+ * so live samples and the history served by the {@link SpeedHistoryController} share one clock.
+ */
+public record SpeedUpdate(
+    String trainId,
+    double averageSpeed,
+    long timestamp
+) {}
@@ -4,6 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
@@ -12,18 +14,26 @@ public class SpeedUpdateHandler {
 
     private static final Logger log = LoggerFactory.getLogger(SpeedUpdateHandler.class);
     private final SimpMessagingTemplate messagingTemplate;
+    private final SpeedHistoryStore speedHistoryStore;
 
     @Autowired
-    public SpeedUpdateHandler(SimpMessagingTemplate messagingTemplate) {
+    public SpeedUpdateHandler(SimpMessagingTemplate messagingTemplate, SpeedHistoryStore speedHistoryStore) {
         this.messagingTemplate = messagingTemplate;
+        this.speedHistoryStore = speedHistoryStore;
     }
 
     @KafkaListener(topics = "train-speed-averages", groupId = "dashboard-webapp-group")
-    public void handleSpeedUpdate(TrainAverageSpeed speedUpdate) {
+    public void handleSpeedUpdate(
+            TrainAverageSpeed speedUpdate,
+            @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
         log.info("Received speed update for {}: {}. Pushing to WebSocket.",
             speedUpdate.trainId(), speedUpdate.averageSpeed());
 
-        // Send the received object to the "/topic/speed-updates" WebSocket topic
-        messagingTemplate.convertAndSend("/topic/speed-updates", speedUpdate);
+        // Keep the history server-side so new clients get it in one request
+        speedHistoryStore.record(speedUpdate.trainId(), timestamp, speedUpdate.averageSpeed());
+
+        // Send the update with its record timestamp to the "/topic/speed-updates" WebSocket topic
+        messagingTemplate.convertAndSend("/topic/speed-updates",
+            new SpeedUpdate(speedUpdate.trainId(), speedUpdate.averageSpeed(), timestamp));
     }
 }
\ No newline at end of file
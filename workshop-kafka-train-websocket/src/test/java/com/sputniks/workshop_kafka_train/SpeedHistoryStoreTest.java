@@ -0,0 +1,36 @@
+package com.sputniks.workshop_kafka_train;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpeedHistoryStoreTest {
+
+    @Test
+    void maxPeriodIsWhatTheBuffersCanHold() {
+        assertThat(new SpeedHistoryStore(4096, 2_000).maxPeriod()).isEqualTo(Duration.ofMillis(8_192_000));
+    }
+
+    @Test
+    void rejectsBuffersThatCannotHoldOneMinute() {
+        assertThatThrownBy(() -> new SpeedHistoryStore(-1, 2_000)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SpeedHistoryStore(4096, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SpeedHistoryStore(29, 2_000)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(new SpeedHistoryStore(30, 2_000).maxPeriod()).isEqualTo(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void recordsPerTrain() {
+        SpeedHistoryStore store = new SpeedHistoryStore(64, 2_000);
+        store.record("T-1", 2_000, 50.0);
+        store.record("T-2", 2_000, 80.0);
+        store.record("T-1", 4_000, 60.0);
+
+        assertThat(store.history("T-1", Duration.ofMinutes(1)).speeds()).containsExactly(50.0, 60.0);
+        assertThat(store.history("T-3", Duration.ofMinutes(1))).isNull();
+        assertThat(store.histories(Duration.ofMinutes(1))).hasSize(2);
+    }
+}
@@ -0,0 +1,80 @@
+package com.sputniks.workshop_kafka_train;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpeedRingBufferTest {
+
+    private static final long WINDOW_MS = 2_000;
+
+    @Test
+    void overwritesTheOldestSamplesOnceFull() {
+        SpeedRingBuffer buffer = new SpeedRingBuffer(3, WINDOW_MS);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i * WINDOW_MS, i * 10.0);
+        }
+
+        SpeedHistory history = buffer.recent("T-1", Long.MAX_VALUE / 2);
+
+        assertThat(history.trainId()).isEqualTo("T-1");
+        assertThat(history.timestamps()).containsExactly(2 * WINDOW_MS, 3 * WINDOW_MS, 4 * WINDOW_MS);
+        assertThat(history.speeds()).containsExactly(20.0, 30.0, 40.0);
+    }
+
+    @Test
+    void returnsOnlyThePeriodBeforeTheNewestSample() {
+        SpeedRingBuffer buffer = new SpeedRingBuffer(8, WINDOW_MS);
+        for (int i = 0; i < 6; i++) {
+            buffer.add(i * WINDOW_MS, i);
+        }
+
+        // Newest sample is at 10s: the last 4s keep the samples at 6s, 8s and 10s (cutoff inclusive)
+        SpeedHistory history = buffer.recent("T-1", 2 * WINDOW_MS);
+
+        assertThat(history.timestamps()).containsExactly(3 * WINDOW_MS, 4 * WINDOW_MS, 5 * WINDOW_MS);
+        assertThat(history.speeds()).containsExactly(3.0, 4.0, 5.0);
+    }
+
+    @Test
+    void appliesTheCutoffAcrossTheWraparound() {
+        SpeedRingBuffer buffer = new SpeedRingBuffer(4, WINDOW_MS);
+        for (int i = 0; i < 7; i++) {
+            buffer.add(i * WINDOW_MS, i);
+        }
+
+        SpeedHistory history = buffer.recent("T-1", WINDOW_MS);
+
+        assertThat(history.timestamps()).containsExactly(5 * WINDOW_MS, 6 * WINDOW_MS);
+        assertThat(history.speeds()).containsExactly(5.0, 6.0);
+    }
+
+    @Test
+    void keepsOneSlotPerWindow() {
+        SpeedRingBuffer buffer = new SpeedRingBuffer(2, WINDOW_MS);
+        buffer.add(4_000, 50.0);
+        buffer.add(4_700, 60.0);
+        buffer.add(5_999, 70.0);  // Revisions of the 4s-6s window
+        buffer.add(6_000, 80.0);
+        buffer.add(5_500, 10.0);  // Late revision of the previous window: dropped
+
+        SpeedHistory history = buffer.recent("T-1", 60_000);
+
+        assertThat(history.timestamps()).containsExactly(5_999L, 6_000L);
+        assertThat(history.speeds()).containsExactly(70.0, 80.0);
+    }
+
+    @Test
+    void emptyBufferReturnsEmptyHistory() {
+        SpeedHistory history = new SpeedRingBuffer(4, WINDOW_MS).recent("T-1", 60_000);
+
+        assertThat(history.timestamps()).isEmpty();
+        assertThat(history.speeds()).isEmpty();
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> new SpeedRingBuffer(0, WINDOW_MS)).isInstanceOf(IllegalArgumentException.class);
+    }
+}